@@ -0,0 +1,86 @@
+package dao;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Records which entities a transaction inserts, updates or deletes, and
+ * which of their fields changed. Filled by {@link ChangeCaptureListener}
+ * while the session flushes.
+ * <p>
+ * Several writes to the same entity instance within one transaction are
+ * folded into a single change: an insert followed by updates stays an
+ * insert, and an entity inserted and deleted in the same transaction is
+ * dropped. The recorded changes are turned into {@link DAOEvent}s only
+ * after the transaction commits.
+ */
+class ChangeCapture {
+
+    private static final class Change {
+        final Class<?> entityClass;
+        final Serializable id;
+        DAOEvent.Type type;
+        boolean dropped;
+        final Set<String> fields = new LinkedHashSet<>();
+
+        Change(Class<?> entityClass, Serializable id, DAOEvent.Type type) {
+            this.entityClass = entityClass;
+            this.id = id;
+            this.type = type;
+        }
+    }
+
+    private final Map<Object, Change> changes = new IdentityHashMap<>();
+    private final List<Change> order = new ArrayList<>();
+
+    private Change record(Object entity, Class<?> entityClass, Serializable id, DAOEvent.Type type) {
+        Change change = changes.get(entity);
+        if (change == null) {
+            change = new Change(entityClass, id, type);
+            changes.put(entity, change);
+            order.add(change);
+        }
+        return change;
+    }
+
+    void inserted(Object entity, Class<?> entityClass, Serializable id, Collection<String> fields) {
+        record(entity, entityClass, id, DAOEvent.Type.CREATED).fields.addAll(fields);
+    }
+
+    void updated(Object entity, Class<?> entityClass, Serializable id, Collection<String> fields) {
+        if (!fields.isEmpty()) {
+            record(entity, entityClass, id, DAOEvent.Type.UPDATED).fields.addAll(fields);
+        }
+    }
+
+    void deleted(Object entity, Class<?> entityClass, Serializable id) {
+        Change change = record(entity, entityClass, id, DAOEvent.Type.DELETED);
+        if (change.type == DAOEvent.Type.CREATED) {
+            change.dropped = true;
+        }
+        change.type = DAOEvent.Type.DELETED;
+        change.fields.clear();
+    }
+
+    /**
+     * Converts the recorded changes into events, in the order Hibernate
+     * executed them. Call only after the transaction has committed.
+     *
+     * @return The events, possibly empty
+     */
+    List<DAOEvent> toEvents() {
+        List<DAOEvent> events = new ArrayList<>(order.size());
+        for (Change change : order) {
+            if (!change.dropped) {
+                events.add(new DAOEvent(change.type, change.entityClass, change.id, change.fields));
+            }
+        }
+        return events;
+    }
+}
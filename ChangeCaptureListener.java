@@ -0,0 +1,151 @@
+package dao;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.hibernate.BaseSessionEventListener;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.type.Type;
+
+/**
+ * Hibernate post-insert, post-update and post-delete listener that feeds
+ * the {@link ChangeCapture} of the session being flushed.
+ * <p>
+ * The listener is registered once per SessionFactory, when the first DAO
+ * for it is constructed, and never from the write path: Hibernate 5.2 and
+ * 5.3 keep each listener group in a plain list, so registering while other
+ * threads flush could fail them or miss the listener. It only records
+ * writes of sessions passed to {@link #track(Session, ChangeCapture)}, so
+ * it neither replaces the factory's own interceptor nor changes how DAO
+ * sessions are opened. Untracked sessions cost a single map lookup per
+ * written entity.
+ */
+final class ChangeCaptureListener implements PostInsertEventListener, PostUpdateEventListener,
+        PostDeleteEventListener {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final ChangeCaptureListener INSTANCE = new ChangeCaptureListener();
+    private static final Set<SessionFactory> INSTALLED = Collections.newSetFromMap(new WeakHashMap<>());
+
+    private final transient Map<Object, ChangeCapture> captures = new ConcurrentHashMap<>();
+
+    private ChangeCaptureListener() {
+    }
+
+    /**
+     * Registers the listener with the given SessionFactory unless it is
+     * already registered there. Must not run concurrently with flushes on
+     * that factory.
+     *
+     * @param sessionFactory The factory whose sessions should be observable
+     */
+    static void install(SessionFactory sessionFactory) {
+        synchronized (INSTALLED) {
+            if (INSTALLED.add(sessionFactory)) {
+                EventListenerRegistry registry = sessionFactory.unwrap(SessionFactoryImplementor.class)
+                        .getServiceRegistry().getService(EventListenerRegistry.class);
+                registry.appendListeners(EventType.POST_INSERT, INSTANCE);
+                registry.appendListeners(EventType.POST_UPDATE, INSTANCE);
+                registry.appendListeners(EventType.POST_DELETE, INSTANCE);
+            }
+        }
+    }
+
+    /**
+     * Records the writes of the given session in the capture until the
+     * session is closed.
+     *
+     * @param session A session of a factory passed to {@link #install(SessionFactory)}
+     * @param capture The capture receiving the session's changes
+     */
+    static void track(Session session, ChangeCapture capture) {
+        INSTANCE.captures.put(session, capture);
+        session.addEventListeners(new BaseSessionEventListener() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public void end() {
+                INSTANCE.captures.remove(session);
+            }
+        });
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        ChangeCapture capture = captures.get(event.getSession());
+        if (capture != null) {
+            EntityPersister persister = event.getPersister();
+            String[] names = persister.getPropertyNames();
+            Object[] state = event.getState();
+            List<String> fields = new ArrayList<>(names.length);
+            for (int i = 0; i < names.length; i++) {
+                if (state[i] != null) {
+                    fields.add(names[i]);
+                }
+            }
+            capture.inserted(event.getEntity(), persister.getMappedClass(), event.getId(), fields);
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        ChangeCapture capture = captures.get(event.getSession());
+        if (capture != null) {
+            EntityPersister persister = event.getPersister();
+            capture.updated(event.getEntity(), persister.getMappedClass(), event.getId(), dirtyFields(event));
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        ChangeCapture capture = captures.get(event.getSession());
+        if (capture != null) {
+            capture.deleted(event.getEntity(), event.getPersister().getMappedClass(), event.getId());
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    private static List<String> dirtyFields(PostUpdateEvent event) {
+        String[] names = event.getPersister().getPropertyNames();
+        List<String> fields = new ArrayList<>();
+        int[] dirty = event.getDirtyProperties();
+        if (dirty != null) {
+            for (int index : dirty) {
+                fields.add(names[index]);
+            }
+            return fields;
+        }
+
+        // No dirty check ran (e.g. a detached update); compare the states instead
+        Object[] state = event.getState();
+        Object[] oldState = event.getOldState();
+        Type[] types = event.getPersister().getPropertyTypes();
+        for (int i = 0; i < names.length; i++) {
+            if (oldState == null || !types[i].isEqual(state[i], oldState[i])) {
+                fields.add(names[i]);
+            }
+        }
+        return fields;
+    }
+}
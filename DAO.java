@@ -7,29 +7,44 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import javax.persistence.PersistenceException;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Order;
+import javax.persistence.criteria.Path;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
 
 import org.hibernate.HibernateException;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
 import org.hibernate.Transaction;
+import org.hibernate.exception.JDBCConnectionException;
 import org.hibernate.query.Query;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-import com.google.gson.JsonObject;
 
 /**
  * Generic Data Access Object (DAO) implementation providing CRUD operations
@@ -42,8 +57,14 @@ import com.google.gson.JsonObject;
 public class GenericDAO<T, ID extends Serializable> {
 
     private static final Logger LOGGER = Logger.getLogger(GenericDAO.class.getName());
+    private static final int DEFAULT_SCAN_FETCH_SIZE = 500;
+    private static final int SCAN_RANGES_PER_THREAD = 4;
     private final Class<T> entityClass;
     private final SessionFactory sessionFactory;
+    private final SessionRouter router;
+    private final DAOEventPublisher events;
+    private final Map<DAOEventListener, DAOEventListener> changeListeners = new ConcurrentHashMap<>();
+    private final EntityMetadata<T> metadata;
     private final Gson gson;
 
     /**
@@ -51,10 +72,46 @@ public class GenericDAO<T, ID extends Serializable> {
      * 
      * @param entityClass The class of the entity this DAO manages
      * @param sessionFactory The Hibernate SessionFactory to use
+     * @throws IllegalArgumentException If the class is not mapped by the SessionFactory
      */
     public GenericDAO(Class<T> entityClass, SessionFactory sessionFactory) {
+        this(entityClass, new SessionRouter(sessionFactory));
+    }
+
+    /**
+     * Constructs a new GenericDAO that sends writes to the router's primary
+     * and spreads reads over its replicas.
+     * 
+     * @param entityClass The class of the entity this DAO manages
+     * @param router The router selecting primary or replica sessions
+     * @throws IllegalArgumentException If the class is not mapped by the primary SessionFactory
+     */
+    public GenericDAO(Class<T> entityClass, SessionRouter router) {
+        this(entityClass, router, DAOEventPublisher.getDefault());
+    }
+
+    /**
+     * Constructs a new GenericDAO that routes sessions through the given
+     * router and publishes write events to the given publisher.
+     * <p>
+     * The first DAO created for a SessionFactory registers the change
+     * capture listeners with it. Hibernate 5.2 and 5.3 do not support
+     * registering listeners while other threads flush, so create DAOs
+     * before the factory is used concurrently.
+     * 
+     * @param entityClass The class of the entity this DAO manages
+     * @param router The router selecting primary or replica sessions
+     * @param events The publisher receiving write events
+     * @throws IllegalArgumentException If the class is not mapped by the primary SessionFactory
+     */
+    public GenericDAO(Class<T> entityClass, SessionRouter router, DAOEventPublisher events) {
+        SessionFactory sessionFactory = router.getPrimary();
         this.entityClass = entityClass;
         this.sessionFactory = sessionFactory;
+        this.router = router;
+        this.events = events;
+        this.metadata = new EntityMetadata<>(entityClass, sessionFactory.getMetamodel());
+        ChangeCaptureListener.install(sessionFactory);
         this.gson = new GsonBuilder()
                 .setDateFormat("yyyy-MM-dd HH:mm:ss")
                 .serializeNulls()
@@ -62,7 +119,139 @@ public class GenericDAO<T, ID extends Serializable> {
     }
 
     /**
-     * Opens a new Hibernate session.
+     * Returns the cached mapping metadata of the managed entity.
+     * 
+     * @return The entity metadata
+     */
+    public EntityMetadata<T> getMetadata() {
+        return metadata;
+    }
+
+    /**
+     * Returns the publisher receiving this DAO's write events.
+     * 
+     * @return The event publisher
+     */
+    public DAOEventPublisher getEventPublisher() {
+        return events;
+    }
+
+    /**
+     * Subscribes a listener to committed changes of this DAO's entity type,
+     * including changes made through other DAOs sharing the same publisher.
+     * Each call receives the matching events of one transaction.
+     * <p>
+     * Whether writes capture changes is decided per publisher, so while the
+     * listener is {@linkplain DAOEventListener#isActive() active}, every DAO
+     * sharing this DAO's publisher captures its changes and queues batches,
+     * whatever its entity type. Give DAOs with change listeners their own
+     * publisher to keep that cost away from the others.
+     * 
+     * @param listener The listener to subscribe
+     */
+    public void addChangeListener(DAOEventListener listener) {
+        DAOEventListener filtered = new DAOEventListener() {
+            @Override
+            public void onEvents(List<DAOEvent> batch) {
+                List<DAOEvent> own = ownEvents(batch);
+                if (!own.isEmpty()) {
+                    listener.onEvents(own);
+                }
+            }
+
+            @Override
+            public boolean isActive() {
+                return listener.isActive();
+            }
+        };
+        if (changeListeners.putIfAbsent(listener, filtered) == null) {
+            events.subscribe(filtered);
+        }
+    }
+
+    /**
+     * Unsubscribes a listener added with {@link #addChangeListener(DAOEventListener)}.
+     * 
+     * @param listener The listener to unsubscribe
+     */
+    public void removeChangeListener(DAOEventListener listener) {
+        DAOEventListener filtered = changeListeners.remove(listener);
+        if (filtered != null) {
+            events.unsubscribe(filtered);
+        }
+    }
+
+    private List<DAOEvent> ownEvents(List<DAOEvent> batch) {
+        List<DAOEvent> own = null;
+        for (int i = 0; i < batch.size(); i++) {
+            boolean matches = entityClass.isAssignableFrom(batch.get(i).getEntityClass());
+            if (own == null && !matches) {
+                // Copy only once the batch turns out to be mixed
+                own = new ArrayList<>(batch.subList(0, i));
+            } else if (own != null && matches) {
+                own.add(batch.get(i));
+            }
+        }
+        return own == null ? batch : own;
+    }
+
+    /**
+     * Creates a change capture for a write transaction, or returns null if
+     * nobody is listening for events.
+     */
+    ChangeCapture newChangeCapture() {
+        return events.hasListeners() ? new ChangeCapture() : null;
+    }
+
+    /**
+     * Opens a session through {@link #openSession()} that records its
+     * writes in the given capture.
+     * 
+     * @param changes The change capture, or null to record nothing
+     * @return A new Hibernate Session
+     */
+    Session openWriteSession(ChangeCapture changes) {
+        Session session = openSession();
+        if (changes != null) {
+            ChangeCaptureListener.track(session, changes);
+        }
+        return session;
+    }
+
+    /**
+     * Pins the calling thread's reads to the primary after a write that
+     * committed on another thread, such as a write-behind flush.
+     */
+    void markWrite() {
+        router.markWrite();
+    }
+
+    /**
+     * Publishes the changes recorded by a committed transaction as one batch.
+     * 
+     * @param changes The change capture, or null if nothing was recorded
+     */
+    void publishChanges(ChangeCapture changes) {
+        if (changes != null) {
+            events.publish(changes.toEvents());
+        }
+    }
+
+    /**
+     * Returns the identifier of the given entity.
+     * 
+     * @param entity The entity to inspect
+     * @return The entity's ID, or null if it has not been assigned yet
+     */
+    @SuppressWarnings("unchecked")
+    protected ID getIdentifier(T entity) {
+        return (ID) sessionFactory.getPersistenceUnitUtil().getIdentifier(entity);
+    }
+
+    /**
+     * Opens a new Hibernate session on the primary database. All writes go
+     * through this method; overrides must return sessions of the primary
+     * SessionFactory for write events to be recorded.
      * 
      * @return A new Hibernate Session
      */
@@ -70,6 +259,57 @@ public class GenericDAO<T, ID extends Serializable> {
         return sessionFactory.openSession();
     }
 
+    /**
+     * Work to run against a Hibernate session.
+     *
+     * @param <R> The result type
+     */
+    @FunctionalInterface
+    public interface SessionWork<R> {
+        R execute(Session session);
+    }
+
+    /**
+     * Runs read-only work on a replica chosen by the router. The work is
+     * retried on the primary if no replica is available, the current thread
+     * wrote recently, or the replica fails.
+     * 
+     * @param work The work to run
+     * @return The result of the work
+     * @throws PersistenceException If the work fails on the primary; queries
+     *         throw plain PersistenceExceptions rather than HibernateExceptions
+     */
+    protected <R> R read(SessionWork<R> work) {
+        SessionRouter.Replica replica = router.acquireReplica();
+        if (replica != null) {
+            try (Session session = replica.sessionFactory.openSession()) {
+                return work.execute(session);
+            } catch (PersistenceException ex) {
+                // Queries wrap Hibernate exceptions in a plain PersistenceException,
+                // so the connection failure is usually only found in the cause chain
+                if (isConnectionFailure(ex)) {
+                    router.markFailed(replica);
+                }
+                LOGGER.log(Level.WARNING, "Read failed on replica, retrying on primary", ex);
+            } finally {
+                router.releaseReplica(replica);
+            }
+        }
+
+        try (Session session = openSession()) {
+            return work.execute(session);
+        }
+    }
+
+    private static boolean isConnectionFailure(Throwable ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof JDBCConnectionException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Persists a new entity to the database.
      * 
@@ -78,12 +318,14 @@ public class GenericDAO<T, ID extends Serializable> {
      * @throws DAOException If an error occurs during the operation
      */
     public T create(T entity) throws DAOException {
-        try (Session session = openSession()) {
+        ChangeCapture changes = newChangeCapture();
+        try (Session session = openWriteSession(changes)) {
             Transaction tx = session.beginTransaction();
             try {
                 session.persist(entity);
                 tx.commit();
-                LOGGER.log(Level.INFO, "Entity created successfully: {0}", entity);
+                router.markWrite();
+                publishChanges(changes);
                 return entity;
             } catch (HibernateException ex) {
                 tx.rollback();
@@ -101,15 +343,40 @@ public class GenericDAO<T, ID extends Serializable> {
      * @throws DAOException If an error occurs during the operation
      */
     public Optional<T> findById(ID id) throws DAOException {
-        try (Session session = openSession()) {
-            T entity = session.get(entityClass, id);
-            return Optional.ofNullable(entity);
-        } catch (HibernateException ex) {
-            LOGGER.log(Level.SEVERE, "Error finding entity by ID: " + id, ex);
+        try {
+            return read(session -> {
+                T entity = session.get(entityClass, id);
+                return Optional.ofNullable(entity);
+            });
+        } catch (PersistenceException ex) {
+            LOGGER.log(Level.SEVERE, ex, () -> "Error finding entity by ID: " + id);
             throw new DAOException("Failed to find entity by ID: " + id, ex);
         }
     }
 
+    /**
+     * Checks whether an entity with the given ID exists without loading it.
+     * 
+     * @param id The ID to look for
+     * @return true if an entity with the given ID exists, false otherwise
+     * @throws DAOException If an error occurs during the operation
+     */
+    public boolean existsById(ID id) throws DAOException {
+        if (metadata.getExistsByIdHql() == null) {
+            return findById(id).isPresent();
+        }
+        try {
+            return read(session -> !session.createQuery(metadata.getExistsByIdHql())
+                    .setParameter("id", id)
+                    .setMaxResults(1)
+                    .getResultList()
+                    .isEmpty());
+        } catch (PersistenceException ex) {
+            LOGGER.log(Level.SEVERE, ex, () -> "Error checking existence of entity with ID: " + id);
+            throw new DAOException("Failed to check existence of entity with ID: " + id, ex);
+        }
+    }
+
     /**
      * Retrieves all entities of the managed type.
      * 
@@ -117,19 +384,204 @@ public class GenericDAO<T, ID extends Serializable> {
      * @throws DAOException If an error occurs during the operation
      */
     public List<T> findAll() throws DAOException {
-        try (Session session = openSession()) {
-            CriteriaBuilder cb = session.getCriteriaBuilder();
-            CriteriaQuery<T> cq = cb.createQuery(entityClass);
-            Root<T> root = cq.from(entityClass);
-            cq.select(root);
-            
-            return session.createQuery(cq).getResultList();
-        } catch (HibernateException ex) {
+        try {
+            return read(session -> session.createQuery(metadata.getFindAllHql(), entityClass).getResultList());
+        } catch (PersistenceException ex) {
             LOGGER.log(Level.SEVERE, "Error finding all entities", ex);
             throw new DAOException("Failed to retrieve all entities", ex);
         }
     }
 
+    /**
+     * Processes every entity of the managed type in parallel.
+     * 
+     * @param consumer The action to apply to each entity
+     * @param parallelism The maximum number of concurrent scans (and connections)
+     * @return The number of entities processed
+     * @throws DAOException If an error occurs during the operation
+     * @see #processAll(Consumer, int, int)
+     */
+    public long processAll(Consumer<? super T> consumer, int parallelism) throws DAOException {
+        return processAll(consumer, parallelism, DEFAULT_SCAN_FETCH_SIZE);
+    }
+
+    /**
+     * Processes every entity of the managed type in parallel. For numeric
+     * primary keys the table is split into ID ranges between the current
+     * minimum and maximum ID, and each range is streamed through its own
+     * stateless session. Other key types are scanned as a single range.
+     * <p>
+     * The consumer is invoked on the worker threads and must be thread-safe.
+     * A range is only read as fast as its consumer accepts entities, so at
+     * most {@code parallelism} connections and fetch buffers are in use at once.
+     * Ranges are spread over the router's replicas; a range that fails is not
+     * retried on the primary, since its entities may already have been consumed.
+     * The first failing range cancels the others, and the method only returns
+     * or throws once every scan has stopped, so no consumer call is still
+     * running when the caller handles the failure.
+     * <p>
+     * Bounded memory depends on the JDBC driver honouring the fetch size.
+     * MySQL Connector/J ignores it and buffers each range completely unless
+     * the connection URL sets {@code useCursorFetch=true}. That flag switches
+     * every statement on the connection to server-side prepared statements,
+     * so set it only on a SessionFactory dedicated to scans.
+     * 
+     * @param consumer The action to apply to each entity
+     * @param parallelism The maximum number of concurrent scans (and connections)
+     * @param fetchSize The JDBC fetch size used by each scan
+     * @return The number of entities processed
+     * @throws DAOException If an error occurs during the operation or the consumer fails
+     */
+    public long processAll(Consumer<? super T> consumer, int parallelism, int fetchSize) throws DAOException {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1");
+        }
+
+        String hql = metadata.getFindAllHql();
+        String idPath = "e." + metadata.getIdAttributeName();
+
+        List<Object[]> ranges = new ArrayList<>();
+        if (!isIntegral(metadata.getIdType())) {
+            // Composite and non-numeric IDs cannot be range-split; scan the whole table at once
+            ranges.add(null);
+        } else {
+            try {
+                Object[] bounds = read(session -> session.createQuery(
+                        "select min(" + idPath + "), max(" + idPath + ") from " + metadata.getEntityName() + " e",
+                        Object[].class)
+                        .getSingleResult());
+                if (bounds[0] == null) {
+                    return 0;
+                }
+                ranges = splitIdRange(bounds[0], bounds[1], parallelism * SCAN_RANGES_PER_THREAD);
+            } catch (PersistenceException ex) {
+                LOGGER.log(Level.SEVERE, "Error computing ID ranges for parallel scan", ex);
+                throw new DAOException("Failed to compute ID ranges for parallel scan", ex);
+            }
+        }
+
+        String rangeHql = hql + " where " + idPath + " between :lower and :upper";
+        AtomicLong processed = new AtomicLong();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, ranges.size()), r -> {
+            Thread thread = new Thread(r, "GenericDAO-scan-" + entityClass.getSimpleName());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            CompletionService<Void> completion = new ExecutorCompletionService<>(executor);
+            // Checked on the calling thread, whose recent writes the scan must see
+            boolean pinned = router.isPinnedToPrimary();
+            for (Object[] range : ranges) {
+                completion.submit(() -> {
+                    SessionRouter.Replica replica = pinned ? null : router.acquireReplica();
+                    SessionFactory factory = replica != null ? replica.sessionFactory : sessionFactory;
+                    try {
+                        scanRange(factory, range == null ? hql : rangeHql, range, fetchSize, consumer, processed);
+                    } finally {
+                        router.releaseReplica(replica);
+                    }
+                    return null;
+                });
+            }
+            // Take ranges in completion order so the first failure is seen at once;
+            // shutdownNow() below then interrupts the remaining scans and waits for them
+            for (int i = 0; i < ranges.size(); i++) {
+                completion.take().get();
+            }
+            return processed.get();
+        } catch (ExecutionException ex) {
+            LOGGER.log(Level.SEVERE, "Error processing entities in parallel", ex.getCause());
+            throw new DAOException("Failed to process all entities", ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new DAOException("Interrupted while processing all entities", ex);
+        } finally {
+            executor.shutdownNow();
+            awaitScans(executor);
+        }
+    }
+
+    /**
+     * Waits for cancelled scans to stop. A scan only notices the interrupt
+     * between rows, so it may still be inside the consumer or a JDBC fetch.
+     * Gives up early only if the calling thread is itself interrupted.
+     */
+    private static void awaitScans(ExecutorService executor) {
+        try {
+            while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                LOGGER.warning("Still waiting for cancelled parallel scans to stop");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Streams a single ID range through a stateless session.
+     */
+    private void scanRange(SessionFactory factory, String hql, Object[] range, int fetchSize,
+                           Consumer<? super T> consumer, AtomicLong processed) throws InterruptedException {
+        try (StatelessSession session = factory.openStatelessSession()) {
+            Query<T> query = session.createQuery(hql, entityClass);
+            if (range != null) {
+                query.setParameter("lower", range[0]).setParameter("upper", range[1]);
+            }
+            query.setFetchSize(fetchSize);
+
+            try (ScrollableResults results = query.scroll(ScrollMode.FORWARD_ONLY)) {
+                while (results.next()) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        throw new InterruptedException("Scan cancelled");
+                    }
+                    consumer.accept(entityClass.cast(results.get(0)));
+                    processed.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    private static boolean isIntegral(Class<?> idType) {
+        return idType == Long.class || idType == long.class
+                || idType == Integer.class || idType == int.class
+                || idType == Short.class || idType == short.class;
+    }
+
+    /**
+     * Splits the inclusive ID range [min, max] of an integral key into
+     * roughly equal sub-ranges.
+     */
+    private static List<Object[]> splitIdRange(Object min, Object max, int parts) {
+        List<Object[]> ranges = new ArrayList<>();
+        long lower = ((Number) min).longValue();
+        long upper = ((Number) max).longValue();
+        long span = upper - lower + 1;
+        if (span <= 0) {
+            // Overflowed: the key space is too wide to split safely
+            ranges.add(null);
+            return ranges;
+        }
+
+        long step = Math.max(1, (span + parts - 1) / parts);
+        for (long start = lower; start <= upper; start += step) {
+            long end = Math.min(upper, start + step - 1);
+            ranges.add(new Object[] { toIdType(start, min), toIdType(end, min) });
+            if (end == upper) {
+                break;
+            }
+        }
+        return ranges;
+    }
+
+    private static Object toIdType(long value, Object sample) {
+        if (sample instanceof Integer) {
+            return (int) value;
+        } else if (sample instanceof Short) {
+            return (short) value;
+        }
+        return value;
+    }
+
     /**
      * Updates an existing entity in the database.
      * 
@@ -138,12 +590,14 @@ public class GenericDAO<T, ID extends Serializable> {
      * @throws DAOException If an error occurs during the operation
      */
     public T update(T entity) throws DAOException {
-        try (Session session = openSession()) {
+        ChangeCapture changes = newChangeCapture();
+        try (Session session = openWriteSession(changes)) {
             Transaction tx = session.beginTransaction();
             try {
                 T mergedEntity = (T) session.merge(entity);
                 tx.commit();
-                LOGGER.log(Level.INFO, "Entity updated successfully: {0}", entity);
+                router.markWrite();
+                publishChanges(changes);
                 return mergedEntity;
             } catch (HibernateException ex) {
                 tx.rollback();
@@ -160,12 +614,14 @@ public class GenericDAO<T, ID extends Serializable> {
      * @throws DAOException If an error occurs during the operation
      */
     public void delete(T entity) throws DAOException {
-        try (Session session = openSession()) {
+        ChangeCapture changes = newChangeCapture();
+        try (Session session = openWriteSession(changes)) {
             Transaction tx = session.beginTransaction();
             try {
                 session.remove(entity);
                 tx.commit();
-                LOGGER.log(Level.INFO, "Entity deleted successfully: {0}", entity);
+                router.markWrite();
+                publishChanges(changes);
             } catch (HibernateException ex) {
                 tx.rollback();
                 LOGGER.log(Level.SEVERE, "Error deleting entity", ex);
@@ -182,14 +638,16 @@ public class GenericDAO<T, ID extends Serializable> {
      * @throws DAOException If an error occurs during the operation
      */
     public boolean deleteById(ID id) throws DAOException {
-        try (Session session = openSession()) {
+        ChangeCapture changes = newChangeCapture();
+        try (Session session = openWriteSession(changes)) {
             Transaction tx = session.beginTransaction();
             try {
                 T entity = session.get(entityClass, id);
                 if (entity != null) {
                     session.remove(entity);
                     tx.commit();
-                    LOGGER.log(Level.INFO, "Entity deleted successfully with ID: {0}", id);
+                    router.markWrite();
+                    publishChanges(changes);
                     return true;
                 } else {
                     tx.rollback();
@@ -198,30 +656,66 @@ public class GenericDAO<T, ID extends Serializable> {
                 }
             } catch (HibernateException ex) {
                 tx.rollback();
-                LOGGER.log(Level.SEVERE, "Error deleting entity with ID: " + id, ex);
+                LOGGER.log(Level.SEVERE, ex, () -> "Error deleting entity with ID: " + id);
                 throw new DAOException("Failed to delete entity with ID: " + id, ex);
             }
         }
     }
 
+    /**
+     * Runs work as a single unit in one transaction on the primary database.
+     * Change events for every entity the work inserts, updates or deletes
+     * are published as one batch after the transaction commits. Bulk HQL
+     * statements run through {@code executeUpdate()} bypass entity tracking
+     * and produce no events.
+     * 
+     * @param work The work to run against the transactional session
+     * @return The result of the work
+     * @throws DAOException If the work or the commit fails; the transaction
+     *         is rolled back and the original exception is the cause
+     */
+    public <R> R executeInTransaction(SessionWork<R> work) throws DAOException {
+        ChangeCapture changes = newChangeCapture();
+        try (Session session = openWriteSession(changes)) {
+            Transaction tx = session.beginTransaction();
+            try {
+                R result = work.execute(session);
+                tx.commit();
+                router.markWrite();
+                publishChanges(changes);
+                return result;
+            } catch (RuntimeException ex) {
+                // The work may throw anything, not only Hibernate exceptions
+                if (tx.isActive()) {
+                    try {
+                        tx.rollback();
+                    } catch (RuntimeException rollbackEx) {
+                        ex.addSuppressed(rollbackEx);
+                    }
+                }
+                LOGGER.log(Level.SEVERE, "Error executing unit of work", ex);
+                throw new DAOException("Failed to execute unit of work", ex);
+            }
+        }
+    }
+
     /**
      * Finds entities by a specific field value.
      * 
      * @param fieldName The name of the field to match
      * @param value The value to match
      * @return A list of matching entities, or an empty list if none match
-     * @throws DAOException If an error occurs during the operation
+     * @throws DAOException If the field is unknown, the value cannot be converted to the field's type or an error occurs
      */
     public List<T> findByField(String fieldName, Object value) throws DAOException {
-        try (Session session = openSession()) {
-            CriteriaBuilder cb = session.getCriteriaBuilder();
-            CriteriaQuery<T> cq = cb.createQuery(entityClass);
-            Root<T> root = cq.from(entityClass);
-            cq.select(root).where(cb.equal(root.get(fieldName), value));
-            
-            return session.createQuery(cq).getResultList();
-        } catch (HibernateException ex) {
-            LOGGER.log(Level.SEVERE, "Error finding entities by field: " + fieldName, ex);
+        Object parameter = metadata.convertForField(fieldName, value);
+        String hql = metadata.getFindByFieldHql(fieldName);
+        try {
+            return read(session -> session.createQuery(hql, entityClass)
+                    .setParameter("value", parameter)
+                    .getResultList());
+        } catch (PersistenceException ex) {
+            LOGGER.log(Level.SEVERE, ex, () -> "Error finding entities by field: " + fieldName);
             throw new DAOException("Failed to find entities by field: " + fieldName, ex);
         }
     }
@@ -232,10 +726,23 @@ public class GenericDAO<T, ID extends Serializable> {
      * @param fieldName The name of the field to match
      * @param value The value to match
      * @return An Optional containing the entity if found, empty otherwise
-     * @throws DAOException If an error occurs during the operation or multiple entities are found
+     * @throws DAOException If the field is unknown, the value cannot be converted, an error occurs
+     *         or multiple entities are found
      */
     public Optional<T> findUniqueByField(String fieldName, Object value) throws DAOException {
-        List<T> results = findByField(fieldName, value);
+        Object parameter = metadata.convertForField(fieldName, value);
+        String hql = metadata.getFindByFieldHql(fieldName);
+        List<T> results;
+        try {
+            // Two rows are enough to detect a duplicate
+            results = read(session -> session.createQuery(hql, entityClass)
+                    .setParameter("value", parameter)
+                    .setMaxResults(2)
+                    .getResultList());
+        } catch (PersistenceException ex) {
+            LOGGER.log(Level.SEVERE, ex, () -> "Error finding unique entity by field: " + fieldName);
+            throw new DAOException("Failed to find unique entity by field: " + fieldName, ex);
+        }
         
         if (results.isEmpty()) {
             return Optional.empty();
@@ -255,16 +762,18 @@ public class GenericDAO<T, ID extends Serializable> {
      * @throws DAOException If an error occurs during the operation
      */
     public List<T> executeNamedQuery(String queryName, Map<String, Object> parameters) throws DAOException {
-        try (Session session = openSession()) {
-            Query<T> query = session.createNamedQuery(queryName, entityClass);
-            
-            if (parameters != null) {
-                parameters.forEach(query::setParameter);
-            }
-            
-            return query.getResultList();
-        } catch (HibernateException ex) {
-            LOGGER.log(Level.SEVERE, "Error executing named query: " + queryName, ex);
+        try {
+            return read(session -> {
+                Query<T> query = session.createNamedQuery(queryName, entityClass);
+
+                if (parameters != null) {
+                    parameters.forEach(query::setParameter);
+                }
+
+                return query.getResultList();
+            });
+        } catch (PersistenceException ex) {
+            LOGGER.log(Level.SEVERE, ex, () -> "Error executing named query: " + queryName);
             throw new DAOException("Failed to execute named query: " + queryName, ex);
         }
     }
@@ -278,42 +787,52 @@ public class GenericDAO<T, ID extends Serializable> {
      * @param offset The starting index of results
      * @param limit The maximum number of results to return
      * @return A list of entities matching the criteria
-     * @throws DAOException If an error occurs during the operation
+     * @throws DAOException If a field is unknown or an error occurs during the operation
      */
     public List<T> search(Map<String, Object> criteria, String sortBy, boolean ascending, 
                          int offset, int limit) throws DAOException {
-        try (Session session = openSession()) {
-            CriteriaBuilder cb = session.getCriteriaBuilder();
-            CriteriaQuery<T> cq = cb.createQuery(entityClass);
-            Root<T> root = cq.from(entityClass);
-            
-            // Add search criteria
-            if (criteria != null && !criteria.isEmpty()) {
-                List<Predicate> predicates = new ArrayList<>();
-                
-                criteria.forEach((field, value) -> {
-                    if (value instanceof String) {
-                        predicates.add(cb.like(root.get(field), "%" + value + "%"));
-                    } else {
-                        predicates.add(cb.equal(root.get(field), value));
-                    }
-                });
-                
-                cq.where(predicates.toArray(new Predicate[0]));
+        if (criteria != null) {
+            for (String field : criteria.keySet()) {
+                metadata.requireAttribute(field);
             }
-            
-            // Add sorting
-            if (sortBy != null && !sortBy.isEmpty()) {
-                Order order = ascending ? cb.asc(root.get(sortBy)) : cb.desc(root.get(sortBy));
-                cq.orderBy(order);
-            }
-            
-            // Execute with pagination
-            return session.createQuery(cq)
-                    .setFirstResult(offset)
-                    .setMaxResults(limit)
-                    .getResultList();
-        } catch (HibernateException ex) {
+        }
+        if (sortBy != null && !sortBy.isEmpty()) {
+            metadata.requireAttribute(sortBy);
+        }
+        try {
+            return read(session -> {
+                CriteriaBuilder cb = session.getCriteriaBuilder();
+                CriteriaQuery<T> cq = cb.createQuery(entityClass);
+                Root<T> root = cq.from(entityClass);
+
+                // Add search criteria
+                if (criteria != null && !criteria.isEmpty()) {
+                    List<Predicate> predicates = new ArrayList<>();
+
+                    criteria.forEach((field, value) -> {
+                        if (value instanceof String) {
+                            predicates.add(cb.like(root.get(field), "%" + value + "%"));
+                        } else {
+                            predicates.add(cb.equal(root.get(field), value));
+                        }
+                    });
+
+                    cq.where(predicates.toArray(new Predicate[0]));
+                }
+
+                // Add sorting
+                if (sortBy != null && !sortBy.isEmpty()) {
+                    Order order = ascending ? cb.asc(root.get(sortBy)) : cb.desc(root.get(sortBy));
+                    cq.orderBy(order);
+                }
+
+                // Execute with pagination
+                return session.createQuery(cq)
+                        .setFirstResult(offset)
+                        .setMaxResults(limit)
+                        .getResultList();
+            });
+        } catch (PersistenceException ex) {
             LOGGER.log(Level.SEVERE, "Error searching entities", ex);
             throw new DAOException("Failed to search entities", ex);
         }
@@ -326,45 +845,164 @@ public class GenericDAO<T, ID extends Serializable> {
      * @throws DAOException If an error occurs during the operation
      */
     public long count() throws DAOException {
-        try (Session session = openSession()) {
-            CriteriaBuilder cb = session.getCriteriaBuilder();
-            CriteriaQuery<Long> cq = cb.createQuery(Long.class);
-            Root<T> root = cq.from(entityClass);
-            cq.select(cb.count(root));
-            
-            return session.createQuery(cq).getSingleResult();
-        } catch (HibernateException ex) {
+        try {
+            return read(session -> session.createQuery(metadata.getCountHql(), Long.class).getSingleResult());
+        } catch (PersistenceException ex) {
+            LOGGER.log(Level.SEVERE, "Error counting entities", ex);
+            throw new DAOException("Failed to count entities", ex);
+        }
+    }
+
+    /**
+     * Checks whether any entity matches all of the given conditions.
+     * Only a single row is requested from the database.
+     * 
+     * @param conditions The conditions to match, combined with AND
+     * @return true if at least one entity matches, false otherwise
+     * @throws DAOException If a field is unknown or an error occurs during the operation
+     */
+    public boolean existsWhere(List<QueryCondition> conditions) throws DAOException {
+        requireFields(conditions);
+        try {
+            return read(session -> {
+                CriteriaBuilder cb = session.getCriteriaBuilder();
+                CriteriaQuery<Integer> cq = cb.createQuery(Integer.class);
+                Root<T> root = cq.from(entityClass);
+                cq.select(cb.literal(1)).where(toPredicates(cb, root, conditions));
+
+                return !session.createQuery(cq).setMaxResults(1).getResultList().isEmpty();
+            });
+        } catch (PersistenceException ex) {
+            LOGGER.log(Level.SEVERE, "Error checking existence of entities", ex);
+            throw new DAOException("Failed to check existence of entities", ex);
+        }
+    }
+
+    /**
+     * Counts entities matching all of the given conditions.
+     * 
+     * @param conditions The conditions to match, combined with AND
+     * @return The count of matching entities
+     * @throws DAOException If a field is unknown or an error occurs during the operation
+     */
+    public long countWhere(List<QueryCondition> conditions) throws DAOException {
+        requireFields(conditions);
+        try {
+            return read(session -> {
+                CriteriaBuilder cb = session.getCriteriaBuilder();
+                CriteriaQuery<Long> cq = cb.createQuery(Long.class);
+                Root<T> root = cq.from(entityClass);
+                cq.select(cb.count(root)).where(toPredicates(cb, root, conditions));
+
+                return session.createQuery(cq).getSingleResult();
+            });
+        } catch (PersistenceException ex) {
             LOGGER.log(Level.SEVERE, "Error counting entities", ex);
             throw new DAOException("Failed to count entities", ex);
         }
     }
 
+    private void requireFields(List<QueryCondition> conditions) throws DAOException {
+        if (conditions != null) {
+            for (QueryCondition condition : conditions) {
+                metadata.requireAttribute(condition.getFieldName());
+            }
+        }
+    }
+
+    /**
+     * Translates query conditions into Criteria predicates.
+     * 
+     * @param cb The CriteriaBuilder to use
+     * @param root The query root
+     * @param conditions The conditions to translate, may be null
+     * @return The predicates, one per condition
+     */
+    protected Predicate[] toPredicates(CriteriaBuilder cb, Root<T> root, List<QueryCondition> conditions) {
+        if (conditions == null || conditions.isEmpty()) {
+            return new Predicate[0];
+        }
+
+        Predicate[] predicates = new Predicate[conditions.size()];
+        for (int i = 0; i < predicates.length; i++) {
+            predicates[i] = toPredicate(cb, root, conditions.get(i));
+        }
+        return predicates;
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private Predicate toPredicate(CriteriaBuilder cb, Root<T> root, QueryCondition condition) {
+        Path path = root.get(condition.getFieldName());
+        Object value = condition.getValue();
+
+        switch (condition.getOperator()) {
+            case EQUALS:
+                return cb.equal(path, value);
+            case NOT_EQUALS:
+                return cb.notEqual(path, value);
+            case GREATER_THAN:
+                return cb.greaterThan(path, (Comparable) value);
+            case LESS_THAN:
+                return cb.lessThan(path, (Comparable) value);
+            case GREATER_THAN_OR_EQUAL:
+                return cb.greaterThanOrEqualTo(path, (Comparable) value);
+            case LESS_THAN_OR_EQUAL:
+                return cb.lessThanOrEqualTo(path, (Comparable) value);
+            case LIKE:
+                return cb.like(path, (String) value);
+            case NOT_LIKE:
+                return cb.notLike(path, (String) value);
+            case IN:
+                return inPredicate(path, value);
+            case NOT_IN:
+                return cb.not(inPredicate(path, value));
+            case IS_NULL:
+                return cb.isNull(path);
+            case IS_NOT_NULL:
+                return cb.isNotNull(path);
+            case BETWEEN:
+                return cb.between(path, (Comparable) value, (Comparable) condition.getSecondValue());
+            default:
+                throw new IllegalArgumentException("Unsupported operator: " + condition.getOperator());
+        }
+    }
+
+    private static Predicate inPredicate(Path<?> path, Object value) {
+        if (value instanceof Collection) {
+            return path.in((Collection<?>) value);
+        }
+        return path.in((Object[]) value);
+    }
+
     /**
      * Finds entities created today.
      * 
      * @param dateField The name of the date field to check
      * @return A list of entities created today
-     * @throws DAOException If an error occurs during the operation
+     * @throws DAOException If the field is unknown or an error occurs during the operation
      */
     public List<T> findCreatedToday(String dateField) throws DAOException {
-        try (Session session = openSession()) {
-            LocalDate today = LocalDate.now();
-            LocalDateTime startOfDay = today.atStartOfDay();
-            LocalDateTime endOfDay = today.plusDays(1).atStartOfDay();
-            
-            Date startDate = Date.from(startOfDay.atZone(ZoneId.systemDefault()).toInstant());
-            Date endDate = Date.from(endOfDay.atZone(ZoneId.systemDefault()).toInstant());
-            
-            CriteriaBuilder cb = session.getCriteriaBuilder();
-            CriteriaQuery<T> cq = cb.createQuery(entityClass);
-            Root<T> root = cq.from(entityClass);
-            
-            cq.select(root).where(
-                cb.between(root.get(dateField), startDate, endDate)
-            );
-            
-            return session.createQuery(cq).getResultList();
-        } catch (HibernateException ex) {
+        metadata.requireAttribute(dateField);
+        try {
+            return read(session -> {
+                LocalDate today = LocalDate.now();
+                LocalDateTime startOfDay = today.atStartOfDay();
+                LocalDateTime endOfDay = today.plusDays(1).atStartOfDay();
+
+                Date startDate = Date.from(startOfDay.atZone(ZoneId.systemDefault()).toInstant());
+                Date endDate = Date.from(endOfDay.atZone(ZoneId.systemDefault()).toInstant());
+
+                CriteriaBuilder cb = session.getCriteriaBuilder();
+                CriteriaQuery<T> cq = cb.createQuery(entityClass);
+                Root<T> root = cq.from(entityClass);
+
+                cq.select(root).where(
+                    cb.between(root.get(dateField), startDate, endDate)
+                );
+
+                return session.createQuery(cq).getResultList();
+            });
+        } catch (PersistenceException ex) {
             LOGGER.log(Level.SEVERE, "Error finding entities created today", ex);
             throw new DAOException("Failed to find entities created today", ex);
         }
@@ -411,10 +1049,8 @@ public class GenericDAO<T, ID extends Serializable> {
      * @return A JSON string representing the error
      */
     protected String createErrorResponse(int errorCode, String errorMessage) {
-        JsonObject error = new JsonObject();
-        error.addProperty("error_code", errorCode);
-        error.addProperty("error_description", errorMessage);
-        return gson.toJson(error);
+        // Written directly rather than through a JsonObject tree; Gson still escapes the message
+        return "{\"error_code\":" + errorCode + ",\"error_description\":" + gson.toJson(errorMessage) + "}";
     }
     
     /**
@@ -0,0 +1,100 @@
+package dao;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * An immutable record of a committed entity change.
+ * <p>
+ * Events carry the entity class, ID and the names of the changed fields,
+ * never the entity itself, so they are cheap to create and safe to hand to
+ * other threads. For inserts the changed fields are those set to a non-null
+ * value; for deletes they are empty.
+ */
+public final class DAOEvent implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The kind of write that was committed.
+     */
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    private final Type type;
+    private final Class<?> entityClass;
+    private final Object id;
+    private final Set<String> changedFields;
+    private final long timestamp;
+
+    /**
+     * Creates an event without field information, stamped with the current time.
+     *
+     * @param type The kind of write
+     * @param entityClass The class of the written entity
+     * @param id The ID of the written entity
+     */
+    public DAOEvent(Type type, Class<?> entityClass, Object id) {
+        this(type, entityClass, id, Collections.emptySet());
+    }
+
+    /**
+     * Creates an event stamped with the current time.
+     *
+     * @param type The kind of write
+     * @param entityClass The class of the written entity
+     * @param id The ID of the written entity
+     * @param changedFields The names of the fields that changed
+     */
+    public DAOEvent(Type type, Class<?> entityClass, Object id, Collection<String> changedFields) {
+        this.type = type;
+        this.entityClass = entityClass;
+        this.id = id;
+        this.changedFields = changedFields.isEmpty() ? Collections.emptySet()
+                : Collections.unmodifiableSet(new LinkedHashSet<>(changedFields));
+        this.timestamp = System.currentTimeMillis();
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Class<?> getEntityClass() {
+        return entityClass;
+    }
+
+    public Object getId() {
+        return id;
+    }
+
+    /**
+     * Returns the names of the fields that changed, in mapping order.
+     */
+    public Set<String> getChangedFields() {
+        return changedFields;
+    }
+
+    /**
+     * Returns the time the event was created, in milliseconds since the epoch.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return "DAOEvent{" +
+                "type=" + type +
+                ", entityClass=" + entityClass.getSimpleName() +
+                ", id=" + id +
+                ", changedFields=" + changedFields +
+                ", timestamp=" + timestamp +
+                '}';
+    }
+}
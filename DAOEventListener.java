@@ -0,0 +1,36 @@
+package dao;
+
+import java.util.List;
+
+/**
+ * Receives DAO write events from a {@link DAOEventPublisher}.
+ * <p>
+ * Listeners are called with one batch per committed transaction, normally
+ * on the publisher's dispatcher thread and in commit order. When the
+ * publisher's queue is full or the publisher is closed, a batch is instead
+ * delivered on the writing thread and may overtake batches still queued,
+ * so listeners must be thread-safe and must not rely on strict ordering.
+ * A listener that throws does not affect other listeners or the DAO.
+ */
+@FunctionalInterface
+public interface DAOEventListener {
+
+    /**
+     * Called with the events of one committed transaction.
+     *
+     * @param events The events, never empty
+     */
+    void onEvents(List<DAOEvent> events);
+
+    /**
+     * Checks whether this listener currently wants events. When no
+     * subscribed listener is active, DAOs skip capturing changes and
+     * publishers drop batches before queueing them. Called on every write,
+     * so it must be cheap.
+     *
+     * @return true if events should be delivered to this listener
+     */
+    default boolean isActive() {
+        return true;
+    }
+}
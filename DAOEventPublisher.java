@@ -0,0 +1,173 @@
+package dao;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Delivers DAO write events to subscribed listeners on a background
+ * dispatcher thread.
+ * <p>
+ * Publishing only enqueues the batch, so the writing thread never runs
+ * listener code or log formatting. When no subscribed listener is
+ * {@linkplain DAOEventListener#isActive() active}, DAOs skip creating events
+ * altogether. If the queue is full, the batch is delivered
+ * on the publishing thread instead of being dropped, which slows the writer
+ * down rather than losing audit events; such a batch may overtake queued ones.
+ * <p>
+ * DAOs share {@link #getDefault()} unless given their own publisher. The
+ * default publisher has a {@link LoggingEventListener} subscribed that logs
+ * every success event at INFO. It is inactive while INFO is disabled, so it
+ * then costs nothing on the write path.
+ */
+public class DAOEventPublisher implements AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(DAOEventPublisher.class.getName());
+    private static final int DEFAULT_CAPACITY = 8192;
+    private static final int MAX_DRAIN = 256;
+
+    private static final DAOEventPublisher DEFAULT = new DAOEventPublisher(DEFAULT_CAPACITY);
+    private static final LoggingEventListener DEFAULT_LOGGING = new LoggingEventListener(1);
+
+    static {
+        DEFAULT.subscribe(DEFAULT_LOGGING);
+        // The dispatcher is a daemon thread; deliver what is still queued at exit
+        Runtime.getRuntime().addShutdownHook(new Thread(DEFAULT::close, "DAOEventPublisher-shutdown"));
+    }
+
+    private final List<DAOEventListener> listeners = new CopyOnWriteArrayList<>();
+    private final BlockingQueue<List<DAOEvent>> queue;
+    private final Thread dispatcher;
+    private volatile boolean running = true;
+
+    /**
+     * Creates a publisher and starts its dispatcher thread.
+     *
+     * @param capacity The maximum number of batches waiting for delivery
+     */
+    public DAOEventPublisher(int capacity) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.dispatcher = new Thread(this::runDispatcher, "DAOEventPublisher-dispatcher");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    /**
+     * Returns the publisher shared by DAOs that were not given their own.
+     *
+     * @return The default publisher
+     */
+    public static DAOEventPublisher getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Returns the listener that logs every write on the default publisher,
+     * so it can be unsubscribed or replaced by a sampled one.
+     *
+     * @return The default logging listener
+     */
+    public static LoggingEventListener getDefaultLoggingListener() {
+        return DEFAULT_LOGGING;
+    }
+
+    public void subscribe(DAOEventListener listener) {
+        listeners.add(listener);
+    }
+
+    public void unsubscribe(DAOEventListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Checks whether any subscribed listener is active, so callers can skip
+     * building events nobody will receive.
+     *
+     * @return true if at least one listener is subscribed and active
+     */
+    public boolean hasListeners() {
+        for (DAOEventListener listener : listeners) {
+            if (listener.isActive()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Publishes a single event as its own batch.
+     *
+     * @param event The event to publish
+     */
+    public void publish(DAOEvent event) {
+        publish(Collections.singletonList(event));
+    }
+
+    /**
+     * Publishes the events of one committed transaction as a batch.
+     *
+     * @param events The events to publish; empty batches are ignored
+     */
+    public void publish(List<DAOEvent> events) {
+        if (events.isEmpty() || !hasListeners()) {
+            return;
+        }
+        if (!running || !queue.offer(events)) {
+            deliver(events);
+        } else if (!running && queue.remove(events)) {
+            // Closed while we were offering and the dispatcher may already have
+            // exited; nobody else will deliver this batch
+            deliver(events);
+        }
+    }
+
+    /**
+     * Delivers any queued batches and stops the dispatcher thread. Later
+     * batches are delivered on the publishing thread. The default publisher
+     * is closed by a shutdown hook, so its queued batches are delivered on
+     * normal JVM exit; batches are lost only if the JVM halts abruptly.
+     */
+    @Override
+    public void close() {
+        running = false;
+        dispatcher.interrupt();
+        try {
+            dispatcher.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runDispatcher() {
+        List<List<DAOEvent>> batches = new ArrayList<>(MAX_DRAIN);
+        while (running || !queue.isEmpty()) {
+            try {
+                if (queue.drainTo(batches, MAX_DRAIN) == 0) {
+                    batches.add(queue.take());
+                }
+            } catch (InterruptedException ex) {
+                // close() was called; loop once more to drain what is left
+                continue;
+            }
+            for (List<DAOEvent> batch : batches) {
+                deliver(batch);
+            }
+            batches.clear();
+        }
+    }
+
+    private void deliver(List<DAOEvent> events) {
+        for (DAOEventListener listener : listeners) {
+            try {
+                listener.onEvents(events);
+            } catch (RuntimeException ex) {
+                LOGGER.log(Level.WARNING, "DAO event listener failed", ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package dao;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.EntityType;
+import javax.persistence.metamodel.Metamodel;
+
+import dao.GenericDAO.DAOException;
+
+/**
+ * Cached mapping metadata for a single entity type.
+ * <p>
+ * Built once per DAO from the JPA {@link Metamodel}, it resolves attribute
+ * names and types up front so finders can validate field names before
+ * touching Hibernate, and it keeps one HQL string per query shape so that
+ * Hibernate's query plan cache is hit instead of re-rendering a Criteria
+ * query on every call.
+ *
+ * @param <T> The entity type
+ */
+public class EntityMetadata<T> {
+
+    private static final Map<Class<?>, Class<?>> PRIMITIVE_WRAPPERS = new HashMap<>();
+
+    static {
+        PRIMITIVE_WRAPPERS.put(boolean.class, Boolean.class);
+        PRIMITIVE_WRAPPERS.put(byte.class, Byte.class);
+        PRIMITIVE_WRAPPERS.put(short.class, Short.class);
+        PRIMITIVE_WRAPPERS.put(char.class, Character.class);
+        PRIMITIVE_WRAPPERS.put(int.class, Integer.class);
+        PRIMITIVE_WRAPPERS.put(long.class, Long.class);
+        PRIMITIVE_WRAPPERS.put(float.class, Float.class);
+        PRIMITIVE_WRAPPERS.put(double.class, Double.class);
+    }
+
+    private final Class<T> entityClass;
+    private final String entityName;
+    private final String idAttributeName;
+    private final Class<?> idType;
+    private final Map<String, Class<?>> attributeTypes;
+
+    private final String findAllHql;
+    private final String countHql;
+    private final String existsByIdHql;
+    private final Map<String, String> findByFieldHql = new ConcurrentHashMap<>();
+
+    /**
+     * Reads the metadata of the given entity class from the metamodel.
+     *
+     * @param entityClass The mapped entity class
+     * @param metamodel The metamodel of the SessionFactory
+     * @throws IllegalArgumentException If the class is not a mapped entity
+     */
+    public EntityMetadata(Class<T> entityClass, Metamodel metamodel) {
+        EntityType<T> entityType = metamodel.entity(entityClass);
+
+        this.entityClass = entityClass;
+        this.entityName = entityType.getName();
+        if (entityType.hasSingleIdAttribute()) {
+            this.idType = entityType.getIdType().getJavaType();
+            this.idAttributeName = entityType.getId(idType).getName();
+        } else {
+            this.idType = null;
+            this.idAttributeName = null;
+        }
+
+        Map<String, Class<?>> types = new HashMap<>();
+        for (Attribute<? super T, ?> attribute : entityType.getAttributes()) {
+            types.put(attribute.getName(), attribute.getJavaType());
+        }
+        this.attributeTypes = Collections.unmodifiableMap(types);
+
+        this.findAllHql = "select e from " + entityName + " e";
+        this.countHql = "select count(e) from " + entityName + " e";
+        this.existsByIdHql = idAttributeName == null ? null
+                : "select 1 from " + entityName + " e where e." + idAttributeName + " = :id";
+    }
+
+    public Class<T> getEntityClass() {
+        return entityClass;
+    }
+
+    /**
+     * Returns the JPA entity name used in HQL.
+     */
+    public String getEntityName() {
+        return entityName;
+    }
+
+    /**
+     * Returns the name of the ID attribute, or null for composite IDs
+     * declared with {@code @IdClass}.
+     */
+    public String getIdAttributeName() {
+        return idAttributeName;
+    }
+
+    /**
+     * Returns the Java type of the ID attribute, or null for composite IDs
+     * declared with {@code @IdClass}.
+     */
+    public Class<?> getIdType() {
+        return idType;
+    }
+
+    /**
+     * Returns the Java types of all attributes, keyed by attribute name.
+     */
+    public Map<String, Class<?>> getAttributeTypes() {
+        return attributeTypes;
+    }
+
+    public boolean hasAttribute(String fieldName) {
+        return attributeTypes.containsKey(fieldName);
+    }
+
+    /**
+     * Checks that the given field is an attribute of the entity.
+     *
+     * @param fieldName The field name to check
+     * @return The Java type of the attribute
+     * @throws DAOException If the entity has no such attribute
+     */
+    public Class<?> requireAttribute(String fieldName) throws DAOException {
+        Class<?> type = fieldName == null ? null : attributeTypes.get(fieldName);
+        if (type == null) {
+            throw new DAOException("Unknown field '" + fieldName + "' for entity " + entityName
+                    + "; known fields are " + attributeTypes.keySet());
+        }
+        return type;
+    }
+
+    /**
+     * Checks that the given field exists and converts the value to the
+     * field's type so it can be bound as a query parameter. Numbers and
+     * numeric strings are converted to numeric fields the same way
+     * Criteria queries convert literals, e.g. an {@code Integer} for a
+     * {@code Long} field.
+     * <p>
+     * Like {@link Number#intValue()} and friends, the conversion may narrow:
+     * a {@code Long} outside the {@code int} range wraps around when matched
+     * against an {@code Integer} field, and a {@code Double} is truncated
+     * when matched against a {@code Long} field.
+     *
+     * @param fieldName The field name to check
+     * @param value The value to compare against, may be null
+     * @return The value, converted to the field's type where needed
+     * @throws DAOException If the field is unknown or the value cannot be converted
+     */
+    public Object convertForField(String fieldName, Object value) throws DAOException {
+        Class<?> attributeType = requireAttribute(fieldName);
+        Class<?> type = PRIMITIVE_WRAPPERS.getOrDefault(attributeType, attributeType);
+        if (value == null || type.isInstance(value)) {
+            return value;
+        }
+
+        Object converted = null;
+        try {
+            if (value instanceof Number || value instanceof String) {
+                converted = convertNumber(value, type);
+            }
+        } catch (NumberFormatException ex) {
+            // Fall through to the error below
+        }
+        if (converted == null) {
+            throw new DAOException("Value of type " + value.getClass().getName() + " cannot be matched against "
+                    + entityName + "." + fieldName + " of type " + type.getName());
+        }
+        return converted;
+    }
+
+    private static Object convertNumber(Object value, Class<?> type) {
+        String text = value.toString();
+        Number number = value instanceof Number ? (Number) value : null;
+        if (type == Long.class) {
+            return number != null ? Long.valueOf(number.longValue()) : Long.valueOf(text);
+        } else if (type == Integer.class) {
+            return number != null ? Integer.valueOf(number.intValue()) : Integer.valueOf(text);
+        } else if (type == Short.class) {
+            return number != null ? Short.valueOf(number.shortValue()) : Short.valueOf(text);
+        } else if (type == Byte.class) {
+            return number != null ? Byte.valueOf(number.byteValue()) : Byte.valueOf(text);
+        } else if (type == Double.class) {
+            return number != null ? Double.valueOf(number.doubleValue()) : Double.valueOf(text);
+        } else if (type == Float.class) {
+            return number != null ? Float.valueOf(number.floatValue()) : Float.valueOf(text);
+        } else if (type == BigDecimal.class) {
+            return new BigDecimal(text);
+        } else if (type == BigInteger.class) {
+            return number != null ? BigInteger.valueOf(number.longValue()) : new BigInteger(text);
+        }
+        return null;
+    }
+
+    public String getFindAllHql() {
+        return findAllHql;
+    }
+
+    public String getCountHql() {
+        return countHql;
+    }
+
+    /**
+     * Returns the HQL for an ID existence probe, or null for composite IDs.
+     */
+    public String getExistsByIdHql() {
+        return existsByIdHql;
+    }
+
+    /**
+     * Returns the cached HQL selecting entities whose field equals {@code :value}.
+     *
+     * @param fieldName The field to match
+     * @return The HQL query string
+     * @throws DAOException If the entity has no such attribute
+     */
+    public String getFindByFieldHql(String fieldName) throws DAOException {
+        String hql = findByFieldHql.get(fieldName);
+        if (hql == null) {
+            requireAttribute(fieldName);
+            hql = findByFieldHql.computeIfAbsent(fieldName,
+                    field -> findAllHql + " where e." + field + " = :value");
+        }
+        return hql;
+    }
+}
@@ -0,0 +1,56 @@
+package dao;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Logs DAO write events at INFO on the {@link GenericDAO} logger.
+ * <p>
+ * Only entity class and ID are logged. With a sample rate of {@code n},
+ * one event in every {@code n} is logged, which keeps log volume and
+ * handler contention bounded at high write rates.
+ * <p>
+ * The listener is only active while INFO is enabled on that logger, so
+ * with INFO off, writes publish nothing for it.
+ */
+public class LoggingEventListener implements DAOEventListener {
+
+    private static final Logger LOGGER = Logger.getLogger(GenericDAO.class.getName());
+
+    private final int sampleRate;
+    private final AtomicLong seen = new AtomicLong();
+
+    /**
+     * Creates a logging listener.
+     *
+     * @param sampleRate Log one event in every {@code sampleRate}; 1 logs all events
+     */
+    public LoggingEventListener(int sampleRate) {
+        if (sampleRate < 1) {
+            throw new IllegalArgumentException("sampleRate must be at least 1");
+        }
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    public boolean isActive() {
+        return LOGGER.isLoggable(Level.INFO);
+    }
+
+    @Override
+    public void onEvents(List<DAOEvent> events) {
+        if (!LOGGER.isLoggable(Level.INFO)) {
+            return;
+        }
+        for (DAOEvent event : events) {
+            if (seen.getAndIncrement() % sampleRate == 0) {
+                LOGGER.log(Level.INFO, "Entity {0} {1} with ID: {2}", new Object[] {
+                        event.getEntityClass().getSimpleName(),
+                        event.getType().name().toLowerCase(),
+                        event.getId() });
+            }
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package dao;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hibernate.SessionFactory;
+
+/**
+ * Routes DAO sessions between a primary SessionFactory and optional read
+ * replicas.
+ * <p>
+ * Writes always use the primary. Reads are spread over the replicas using
+ * the configured {@link Strategy}, except for a short stickiness window
+ * after a write on the same thread: reads then go to the primary so the
+ * caller sees its own writes despite replication lag. A read that fails on
+ * a replica is retried on the primary, and a replica that loses its
+ * connection is skipped for a cool-down period.
+ * <p>
+ * A single router can be shared by several DAOs so that stickiness applies
+ * across entity types.
+ */
+public class SessionRouter {
+
+    /**
+     * How reads are distributed over the replicas.
+     */
+    public enum Strategy {
+        /** Cycle through the replicas in order. */
+        ROUND_ROBIN,
+        /** Pick the replica with the fewest open read sessions. */
+        LEAST_LOADED
+    }
+
+    /**
+     * A replica SessionFactory together with its load and health state.
+     */
+    static final class Replica {
+        final SessionFactory sessionFactory;
+        final AtomicInteger active = new AtomicInteger();
+        // nanoTime() may start at any value, so a zero deadline is not "in the
+        // past"; the deadline is only meaningful while the flag is set
+        volatile boolean down;
+        volatile long downUntilNanos;
+
+        Replica(SessionFactory sessionFactory) {
+            this.sessionFactory = sessionFactory;
+        }
+
+        boolean isAvailable(long now) {
+            if (!down) {
+                return true;
+            }
+            if (downUntilNanos - now <= 0) {
+                down = false;
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private static final long DEFAULT_STICKINESS_MILLIS = 1_000;
+    private static final long REPLICA_COOL_DOWN_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final SessionFactory primary;
+    private final List<Replica> replicas;
+    private final Strategy strategy;
+    private final long stickinessNanos;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final ThreadLocal<Long> lastWriteNanos = new ThreadLocal<>();
+
+    /**
+     * Creates a router that sends everything to the primary.
+     *
+     * @param primary The primary SessionFactory
+     */
+    public SessionRouter(SessionFactory primary) {
+        this(primary, Collections.emptyList(), Strategy.ROUND_ROBIN, DEFAULT_STICKINESS_MILLIS);
+    }
+
+    /**
+     * Creates a router with round-robin replica selection and a one second
+     * read-your-writes window.
+     *
+     * @param primary The primary SessionFactory
+     * @param replicas The replica SessionFactories
+     */
+    public SessionRouter(SessionFactory primary, List<SessionFactory> replicas) {
+        this(primary, replicas, Strategy.ROUND_ROBIN, DEFAULT_STICKINESS_MILLIS);
+    }
+
+    /**
+     * Creates a router.
+     *
+     * @param primary The primary SessionFactory
+     * @param replicas The replica SessionFactories
+     * @param strategy How reads are distributed over the replicas
+     * @param stickinessMillis How long reads stay on the primary after a write on the same thread
+     */
+    public SessionRouter(SessionFactory primary, List<SessionFactory> replicas,
+                         Strategy strategy, long stickinessMillis) {
+        this.primary = primary;
+        List<Replica> list = new ArrayList<>(replicas.size());
+        for (SessionFactory replica : replicas) {
+            list.add(new Replica(replica));
+        }
+        this.replicas = Collections.unmodifiableList(list);
+        this.strategy = strategy;
+        this.stickinessNanos = TimeUnit.MILLISECONDS.toNanos(stickinessMillis);
+    }
+
+    public SessionFactory getPrimary() {
+        return primary;
+    }
+
+    /**
+     * Records a committed write on the current thread, pinning its reads to
+     * the primary for the stickiness window.
+     */
+    public void markWrite() {
+        if (!replicas.isEmpty()) {
+            lastWriteNanos.set(System.nanoTime());
+        }
+    }
+
+    /**
+     * Checks whether the current thread wrote within the stickiness window,
+     * in which case its reads must go to the primary.
+     *
+     * @return true if reads on this thread should use the primary
+     */
+    boolean isPinnedToPrimary() {
+        Long lastWrite = lastWriteNanos.get();
+        if (lastWrite == null) {
+            return false;
+        }
+        if (System.nanoTime() - lastWrite < stickinessNanos) {
+            return true;
+        }
+        lastWriteNanos.remove();
+        return false;
+    }
+
+    /**
+     * Picks a replica for a read and counts it as in use.
+     *
+     * @return The chosen replica, or null if the read should use the primary
+     */
+    Replica acquireReplica() {
+        if (replicas.isEmpty() || isPinnedToPrimary()) {
+            return null;
+        }
+
+        long now = System.nanoTime();
+        Replica chosen = strategy == Strategy.LEAST_LOADED ? leastLoaded(now) : roundRobin(now);
+        if (chosen != null) {
+            chosen.active.incrementAndGet();
+        }
+        return chosen;
+    }
+
+    /**
+     * Returns a replica obtained from {@link #acquireReplica()}.
+     *
+     * @param replica The replica, may be null
+     */
+    void releaseReplica(Replica replica) {
+        if (replica != null) {
+            replica.active.decrementAndGet();
+        }
+    }
+
+    /**
+     * Takes a replica out of rotation for the cool-down period after an error.
+     *
+     * @param replica The failed replica
+     */
+    void markFailed(Replica replica) {
+        replica.downUntilNanos = System.nanoTime() + REPLICA_COOL_DOWN_NANOS;
+        replica.down = true;
+    }
+
+    private Replica roundRobin(long now) {
+        int size = replicas.size();
+        int start = Math.floorMod(nextReplica.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.isAvailable(now)) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    private Replica leastLoaded(long now) {
+        Replica best = null;
+        for (Replica replica : replicas) {
+            if (replica.isAvailable(now) && (best == null || replica.active.get() < best.active.get())) {
+                best = replica;
+            }
+        }
+        return best;
+    }
+}
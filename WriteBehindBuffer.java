@@ -0,0 +1,448 @@
+package dao;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+
+import dao.GenericDAO.DAOException;
+
+/**
+ * Opt-in write-behind buffer for high-rate writes through a {@link GenericDAO}.
+ * <p>
+ * Entities are queued by the calling threads and persisted by a single
+ * background flusher in JDBC batches, once {@code batchSize} writes are
+ * pending or {@code flushIntervalMillis} has elapsed. Updates to an entity
+ * whose ID is already queued are coalesced so only the latest state is
+ * written. The buffer holds at most {@code capacity} unwritten entities;
+ * producers wait up to {@code offerTimeoutMillis} for space before failing.
+ * <p>
+ * If a batch fails, its entities are retried one per transaction, so a
+ * single bad entity (for example one violating a constraint) fails alone
+ * and the rest of the batch is still written. Failed entities are logged
+ * at SEVERE; in {@code ASYNC} mode the next {@link #flush()} also reports
+ * them.
+ * <p>
+ * After a {@code SYNC} write or a {@link #flush()} returns, reads on the
+ * calling thread are routed to the primary for the router's stickiness
+ * window, as after a direct DAO write.
+ * <p>
+ * Closing the buffer (or JVM shutdown) flushes everything still queued.
+ *
+ * @param <T> The entity type
+ * @param <ID> The type of the entity's primary key
+ */
+public class WriteBehindBuffer<T, ID extends Serializable> implements AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(WriteBehindBuffer.class.getName());
+
+    /**
+     * How long a write call waits before returning.
+     */
+    public enum Durability {
+        /** Return as soon as the entity is queued; failures are only logged. */
+        ASYNC,
+        /** Block until the batch containing the entity has committed. */
+        SYNC
+    }
+
+    private enum Kind { CREATE, UPDATE, BARRIER }
+
+    private static final class Op<T> {
+        final Kind kind;
+        final Object id;
+        volatile T entity;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+        // Identity of a new entity before its first write attempt; flusher thread only
+        boolean identitySaved;
+        Serializable initialId;
+        Object initialVersion;
+
+        Op(Kind kind, Object id, T entity) {
+            this.kind = kind;
+            this.id = id;
+            this.entity = entity;
+        }
+    }
+
+    private final GenericDAO<T, ID> dao;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final long offerTimeoutMillis;
+    private final Durability durability;
+
+    private final ConcurrentLinkedQueue<Op<T>> queue = new ConcurrentLinkedQueue<>();
+    private final ConcurrentHashMap<Object, Op<T>> pendingUpdates = new ConcurrentHashMap<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Semaphore capacity;
+    private final Thread flusher;
+    private final Thread shutdownHook;
+
+    private volatile boolean running = true;
+    private volatile boolean flushRequested;
+    /** First write failure since the last completed barrier; flusher thread only. */
+    private RuntimeException failureSinceBarrier;
+
+    /**
+     * Creates a buffer with default sizing: capacity 10000, batches of 100,
+     * a 200 ms flush interval and a 5 second offer timeout.
+     *
+     * @param dao The DAO whose sessions are used for writing
+     * @param durability How long write calls wait before returning
+     */
+    public WriteBehindBuffer(GenericDAO<T, ID> dao, Durability durability) {
+        this(dao, 10_000, 100, 200, 5_000, durability);
+    }
+
+    /**
+     * Creates a buffer and starts its background flusher.
+     *
+     * @param dao The DAO whose sessions are used for writing
+     * @param capacity The maximum number of unwritten entities
+     * @param batchSize The number of entities written per JDBC batch and transaction
+     * @param flushIntervalMillis The maximum time an entity waits before being flushed
+     * @param offerTimeoutMillis How long producers wait for space when the buffer is full
+     * @param durability How long write calls wait before returning
+     */
+    public WriteBehindBuffer(GenericDAO<T, ID> dao, int capacity, int batchSize,
+                             long flushIntervalMillis, long offerTimeoutMillis, Durability durability) {
+        if (capacity < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("capacity and batchSize must be at least 1");
+        }
+        this.dao = dao;
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        this.offerTimeoutMillis = offerTimeoutMillis;
+        this.durability = durability;
+        this.capacity = new Semaphore(capacity);
+
+        this.flusher = new Thread(this::runFlusher, "WriteBehindBuffer-flusher");
+        this.flusher.setDaemon(true);
+        this.shutdownHook = new Thread(this::closeQuietly, "WriteBehindBuffer-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+        this.flusher.start();
+    }
+
+    /**
+     * Queues a new entity to be persisted.
+     *
+     * @param entity The entity to persist
+     * @throws DAOException If the buffer is closed or full, or (in SYNC mode) the write fails
+     */
+    public void create(T entity) throws DAOException {
+        enqueue(new Op<>(Kind.CREATE, null, entity));
+    }
+
+    /**
+     * Queues an entity to be merged. If an update for the same ID is still
+     * queued, it is replaced by this one instead of taking a new slot.
+     *
+     * @param entity The entity to update
+     * @throws DAOException If the buffer is closed or full, or (in SYNC mode) the write fails
+     */
+    public void update(T entity) throws DAOException {
+        Object id = dao.getIdentifier(entity);
+        if (id == null) {
+            enqueue(new Op<>(Kind.UPDATE, null, entity));
+            return;
+        }
+
+        ensureRunning();
+        Op<T> candidate = new Op<>(Kind.UPDATE, id, entity);
+        Op<T> op = pendingUpdates.compute(id, (key, existing) -> {
+            if (existing != null) {
+                existing.entity = entity;
+                return existing;
+            }
+            return candidate;
+        });
+
+        if (op == candidate) {
+            try {
+                acquireSlot();
+            } catch (DAOException ex) {
+                // Fail anyone who coalesced into this op while it waited for space
+                pendingUpdates.remove(id, op);
+                op.done.completeExceptionally(ex);
+                throw ex;
+            }
+            offer(op);
+        }
+        awaitIfSync(op);
+    }
+
+    /**
+     * Blocks until every entity queued before this call has been written.
+     * Entities queued after this call do not delay it.
+     *
+     * @throws DAOException If the buffer is closed, interrupted while waiting,
+     *         or a write failed since the previous flush
+     */
+    public void flush() throws DAOException {
+        ensureRunning();
+        Op<T> barrier = new Op<>(Kind.BARRIER, null, null);
+        offer(barrier);
+        flushRequested = true;
+        LockSupport.unpark(flusher);
+        await(barrier);
+        // The writes committed on the flusher thread; let this thread read them back
+        dao.markWrite();
+    }
+
+    /**
+     * Stops accepting writes, flushes everything still queued and stops
+     * the background flusher.
+     */
+    @Override
+    public void close() {
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException ex) {
+            // Already shutting down; the hook is running or has run
+        }
+        closeQuietly();
+    }
+
+    /**
+     * Returns the number of entities queued but not yet written.
+     *
+     * @return The number of pending writes
+     */
+    public int getPendingCount() {
+        return pending.get();
+    }
+
+    private void closeQuietly() {
+        running = false;
+        flushRequested = true;
+        LockSupport.unpark(flusher);
+        try {
+            flusher.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void enqueue(Op<T> op) throws DAOException {
+        ensureRunning();
+        acquireSlot();
+        offer(op);
+        awaitIfSync(op);
+    }
+
+    private void offer(Op<T> op) throws DAOException {
+        queue.offer(op);
+        if (!running && queue.remove(op)) {
+            // Closed while we were enqueuing and the flusher may already have
+            // exited; nobody else will write this op, so fail it here
+            DAOException closed = new DAOException("Write-behind buffer is closed");
+            if (op.kind != Kind.BARRIER) {
+                if (op.id != null) {
+                    pendingUpdates.remove(op.id, op);
+                }
+                capacity.release();
+            }
+            op.done.completeExceptionally(closed);
+            throw closed;
+        }
+        if (op.kind != Kind.BARRIER && pending.incrementAndGet() >= batchSize) {
+            LockSupport.unpark(flusher);
+        }
+    }
+
+    private void ensureRunning() throws DAOException {
+        if (!running) {
+            throw new DAOException("Write-behind buffer is closed");
+        }
+    }
+
+    private void acquireSlot() throws DAOException {
+        try {
+            if (!capacity.tryAcquire(offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new DAOException("Write-behind buffer is full");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new DAOException("Interrupted while waiting for write-behind buffer space", ex);
+        }
+    }
+
+    private void awaitIfSync(Op<T> op) throws DAOException {
+        if (durability == Durability.SYNC) {
+            await(op);
+            dao.markWrite();
+        }
+    }
+
+    private void await(Op<T> op) throws DAOException {
+        try {
+            op.done.get();
+        } catch (ExecutionException ex) {
+            throw new DAOException("Failed to write buffered entity", ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new DAOException("Interrupted while waiting for buffered write", ex);
+        }
+    }
+
+    private void runFlusher() {
+        while (running || !queue.isEmpty()) {
+            if (running && !flushRequested && pending.get() < batchSize) {
+                LockSupport.parkNanos(this, flushIntervalNanos);
+            }
+            flushRequested = false;
+            try {
+                drain();
+            } catch (RuntimeException ex) {
+                LOGGER.log(Level.SEVERE, "Unexpected error in write-behind flusher", ex);
+            }
+        }
+    }
+
+    private void drain() {
+        List<Op<T>> batch = new ArrayList<>(batchSize);
+        Op<T> op;
+        while ((op = queue.poll()) != null) {
+            if (op.kind == Kind.BARRIER) {
+                // Write everything ahead of the barrier, then release it right away
+                // so flush() does not wait for the queue to run dry under load
+                if (!batch.isEmpty()) {
+                    write(batch);
+                    batch.clear();
+                }
+                completeBarrier(op);
+                continue;
+            }
+            pending.decrementAndGet();
+            if (op.id != null) {
+                // Detach before reading the entity so later updates start a new op
+                pendingUpdates.remove(op.id, op);
+            }
+            batch.add(op);
+            if (batch.size() >= batchSize) {
+                write(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch);
+        }
+    }
+
+    private void completeBarrier(Op<T> barrier) {
+        if (failureSinceBarrier != null) {
+            barrier.done.completeExceptionally(failureSinceBarrier);
+            failureSinceBarrier = null;
+        } else {
+            barrier.done.complete(null);
+        }
+    }
+
+    private void write(List<Op<T>> batch) {
+        try {
+            RuntimeException failure = writeTransaction(batch);
+            if (failure == null) {
+                batch.forEach(op -> op.done.complete(null));
+                LOGGER.log(Level.FINE, "Flushed {0} buffered entities", batch.size());
+                return;
+            }
+            if (batch.size() == 1) {
+                fail(batch.get(0), failure);
+                return;
+            }
+
+            // One bad entity rolls back the whole batch; retry each entity on its
+            // own so that only the offending ones fail
+            LOGGER.log(Level.WARNING, failure, () -> "Error flushing " + batch.size()
+                    + " buffered entities, retrying them one per transaction");
+            for (Op<T> op : batch) {
+                RuntimeException opFailure = writeTransaction(Collections.singletonList(op));
+                if (opFailure == null) {
+                    op.done.complete(null);
+                } else {
+                    fail(op, opFailure);
+                }
+            }
+        } finally {
+            capacity.release(batch.size());
+        }
+    }
+
+    /**
+     * Writes the given operations in one transaction and publishes their
+     * changes after commit.
+     *
+     * @return null on success, otherwise the failure
+     */
+    private RuntimeException writeTransaction(List<Op<T>> ops) {
+        ChangeCapture changes = dao.newChangeCapture();
+        try (Session session = dao.openWriteSession(changes)) {
+            session.setJdbcBatchSize(batchSize);
+            SessionImplementor source = session.unwrap(SessionImplementor.class);
+            Transaction tx = session.beginTransaction();
+            try {
+                for (Op<T> op : ops) {
+                    if (op.kind == Kind.CREATE) {
+                        restoreIdentity(op, source);
+                        session.persist(op.entity);
+                    } else {
+                        session.merge(op.entity);
+                    }
+                }
+                tx.commit();
+            } catch (RuntimeException ex) {
+                if (tx.isActive()) {
+                    tx.rollback();
+                }
+                throw ex;
+            }
+            dao.publishChanges(changes);
+            return null;
+        } catch (RuntimeException ex) {
+            return ex;
+        }
+    }
+
+    /**
+     * Saves the ID and version of a new entity before its first write
+     * attempt and puts them back before a retry. A failed persist may
+     * already have assigned a generated ID that the rollback did not undo,
+     * and persisting the entity again would then be rejected as detached.
+     */
+    private static void restoreIdentity(Op<?> op, SessionImplementor session) {
+        EntityPersister persister = session.getEntityPersister(null, op.entity);
+        if (!op.identitySaved) {
+            op.initialId = persister.getIdentifier(op.entity, session);
+            op.initialVersion = persister.isVersioned() ? persister.getVersion(op.entity) : null;
+            op.identitySaved = true;
+        } else {
+            persister.setIdentifier(op.entity, op.initialId, session);
+            if (persister.isVersioned()) {
+                persister.setPropertyValue(op.entity, persister.getVersionProperty(), op.initialVersion);
+            }
+        }
+    }
+
+    private void fail(Op<T> op, RuntimeException ex) {
+        LOGGER.log(Level.SEVERE, "Error writing buffered entity", ex);
+        op.done.completeExceptionally(ex);
+        if (failureSinceBarrier == null) {
+            failureSinceBarrier = ex;
+        }
+    }
+}